@@ -66,6 +66,28 @@ public class Movie implements Comparable<Movie>
         return newActor;
     }
 
+    /**
+     * Removes the actors with the given name from the actors of this movie.
+     * 
+     * @param name - The name of the actor, with or without the quotes of the input file
+     * @return true if an actor was removed, false if no actor of this movie has this name
+     */
+    public boolean removeActor(String name){
+        String unquoted = name.replace("\"","");
+        LinkedList<Actor> matching = new LinkedList<Actor>();
+        Enumeration<Actor> e = allActors.keys();
+        while (e.hasMoreElements()) {
+            Actor anActor = e.nextElement();
+            if (anActor.getName().replace("\"","").equals(unquoted)){
+                matching.add(anActor);
+            }
+        }
+        for (Actor anActor : matching){
+            allActors.remove(anActor);
+        }
+        return !matching.isEmpty();
+    }
+
     /**
      * Tests this movie object with the input one and determines whether they are equal.
      * 
@@ -134,6 +156,13 @@ public class Movie implements Comparable<Movie>
         }
     }
 
+    /**
+     * Removes all the test results of this movie, so that new ones can be set
+     */
+    public void clearTestResults(){
+        testResults.clear();
+    }
+
     /**
      * Returns a Vector with all the Bechdel test results for this movie
      * 
@@ -0,0 +1,616 @@
+import java.util.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the changes made to a MovieCollection: new or replaced test results for a
+ * movie, and actors added to or removed from a cast. Each change is applied to the collection in
+ * memory and appended to the end of the log file, instead of rewriting the tests and casts files.
+ *
+ * Every record of the log is its length, a CRC32 checksum, and the change itself. When the log is
+ * opened, its records are applied again to the collection, and a last record that was only half
+ * written (because the program stopped while writing it) is cut off. A damaged record in the
+ * middle of the log stops the opening with an IOException instead.
+ *
+ * The log is forced to disk once for a whole group of changes (see sync), and once it grows past a
+ * given size it is compacted: the changes are merged into the tests and casts files, and the log is
+ * emptied.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class MovieChangeLog implements Closeable
+{
+    private static final byte UPSERT_RESULTS = 1;
+    private static final byte ADD_CAST = 2;
+    private static final byte REMOVE_CAST = 3;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private MovieCollection collection;
+    private Path logFile;
+    private FileChannel channel;
+    private int groupCommitSize;
+    private long compactionSize;
+
+    // number of records written to the channel, and number of those known to be on disk
+    private volatile long written;
+    private volatile long synced;
+    private final Object syncLock = new Object();
+
+    /**
+     * Constructor for objects of class MovieChangeLog, that forces the log to disk every 64 changes
+     * and compacts it once it is larger than 1 MB.
+     *
+     * @param collection The collection the changes are applied to; it must already have been read
+     * @param logFileName The name of the log file, which is created if it does not exist
+     */
+    public MovieChangeLog(MovieCollection collection, String logFileName) throws IOException
+    {
+        this(collection, logFileName, 64, 1024 * 1024);
+    }
+
+    /**
+     * Constructor for objects of class MovieChangeLog. The changes already in the log file are
+     * applied to the collection.
+     *
+     * @param collection The collection the changes are applied to; it must already have been read
+     * @param logFileName The name of the log file, which is created if it does not exist
+     * @param groupCommitSize The number of changes after which the log is forced to disk
+     * @param compactionSize The size in bytes after which the log is merged into the base files
+     */
+    public MovieChangeLog(MovieCollection collection, String logFileName, int groupCommitSize,
+        long compactionSize) throws IOException
+    {
+        this.collection = collection;
+        this.logFile = Paths.get(logFileName);
+        this.groupCommitSize = Math.max(1, groupCommitSize);
+        this.compactionSize = compactionSize;
+        channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        replay();
+    }
+
+    /**
+     * Replaces the test results of a movie, or adds the movie if there is none with this title.
+     *
+     * @param title The title of the movie, as in the tests file
+     * @param results The results of the tests, formatted as in the tests file (ie. "0,1,1,...")
+     * @throws IllegalArgumentException if the change is not valid; nothing is written then
+     */
+    public void upsertTestResults(String title, String results) throws IOException
+    {
+        append(UPSERT_RESULTS, title, results);
+    }
+
+    /**
+     * Adds one actor to the cast of a movie.
+     *
+     * @param line A line formatted as the lines of the casts file
+     * @throws IllegalArgumentException if the change is not valid; nothing is written then
+     */
+    public void addCast(String line) throws IOException
+    {
+        append(ADD_CAST, line);
+    }
+
+    /**
+     * Removes an actor from the cast of a movie.
+     *
+     * @param title The title of the movie, without quotes
+     * @param actorName The name of the actor, without quotes
+     * @throws IllegalArgumentException if the change is not valid; nothing is written then
+     */
+    public void removeCast(String title, String actorName) throws IOException
+    {
+        append(REMOVE_CAST, title, actorName);
+    }
+
+    /**
+     * Forces every change appended so far to disk. When several threads call sync at once, the
+     * first one forces the log for all of them.
+     */
+    public void sync() throws IOException
+    {
+        long target = written;
+        synchronized (syncLock) {
+            if (synced >= target){
+                // another thread already forced these changes to disk
+                return;
+            }
+            long covered = written;
+            channel.force(false);
+            synced = Math.max(synced, covered);
+        }
+    }
+
+    /**
+     * Merges the changes of the log into the tests and casts files of the collection, and empties
+     * the log. The new files are written next to the old ones, moved over them, and their directory
+     * is forced to disk; only then is the log emptied.
+     *
+     * Applying the changes of the log gives the same files and the same collection whether they are
+     * applied to the files from before or from after a compaction: a test result upsert replaces the
+     * results of the movie, adding an actor that is already in the cast of the movie does nothing,
+     * and removing an actor removes all of the rows of that actor in the cast of the movie. So if the
+     * program stops at any point of a compaction, opening the log again loses no change and adds none
+     * twice.
+     */
+    public synchronized void compact() throws IOException
+    {
+        channel.force(false);
+
+        // the changes, in the order they were made
+        LinkedHashMap<String, String> upserts = new LinkedHashMap<String, String>();
+        LinkedList<Change> castChanges = new LinkedList<Change>();
+        HashSet<String> touchedCasts = new HashSet<String>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)));
+        try {
+            Change change;
+            while ((change = readRecord(in)) != null){
+                String[] fields = change.fields;
+                if (change.type == UPSERT_RESULTS){
+                    upserts.remove(fields[0]);
+                    upserts.put(fields[0], fields[1]);
+                } else if (change.type == ADD_CAST){
+                    String[] split = fields[0].split(",");
+                    castChanges.add(change);
+                    touchedCasts.add(castKey(split[0], split[1]));
+                } else if (change.type == REMOVE_CAST){
+                    castChanges.add(change);
+                    touchedCasts.add(castKey(fields[0], fields[1]));
+                }
+            }
+        } finally {
+            in.close();
+        }
+
+        Path tests = Paths.get(collection.getTestsFileName());
+        Path casts = Paths.get(collection.getCastsFileName());
+        Path newTests = Paths.get(tests + ".compact");
+        Path newCasts = Paths.get(casts + ".compact");
+
+        // which of the actors changed in the log are in the casts file already
+        HashSet<String> inBase = new HashSet<String>();
+        BufferedReader reader = Files.newBufferedReader(casts, StandardCharsets.UTF_8);
+        try {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null){
+                String[] split = line.split(",");
+                if (split.length >= 2 && touchedCasts.contains(castKey(split[0], split[1]))){
+                    inBase.add(castKey(split[0], split[1]));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        // the rows that replace those of the casts file, for each actor changed in the log, worked
+        // out the same way MovieCollection.addCast and removeCast change the collection
+        LinkedHashMap<String, LinkedList<String>> castRows = new LinkedHashMap<String, LinkedList<String>>();
+        for (Change change : castChanges){
+            if (change.type == ADD_CAST){
+                String[] split = change.fields[0].split(",");
+                String key = castKey(split[0], split[1]);
+                LinkedList<String> rows = castRows.get(key);
+                if (rows == null && !inBase.contains(key)){
+                    rows = new LinkedList<String>();
+                    castRows.put(key, rows);
+                }
+                if (rows != null && rows.isEmpty()){
+                    rows.add(change.fields[0]);
+                }
+            } else {
+                castRows.put(castKey(change.fields[0], change.fields[1]), new LinkedList<String>());
+            }
+        }
+
+        reader = Files.newBufferedReader(tests, StandardCharsets.UTF_8);
+        BufferedWriter writer = Files.newBufferedWriter(newTests, StandardCharsets.UTF_8);
+        try {
+            String line = reader.readLine();
+            if (line != null){
+                // the header of the file
+                writer.write(line);
+                writer.newLine();
+            }
+            while ((line = reader.readLine()) != null){
+                String title = line.split(",")[0];
+                String results = upserts.remove(title);
+                writer.write(results == null ? line : title + "," + results);
+                writer.newLine();
+            }
+            for (Map.Entry<String, String> upsert : upserts.entrySet()){
+                writer.write(upsert.getKey() + "," + upsert.getValue());
+                writer.newLine();
+            }
+        } finally {
+            reader.close();
+            writer.close();
+        }
+
+        reader = Files.newBufferedReader(casts, StandardCharsets.UTF_8);
+        writer = Files.newBufferedWriter(newCasts, StandardCharsets.UTF_8);
+        try {
+            String line = reader.readLine();
+            if (line != null){
+                writer.write(line);
+                writer.newLine();
+            }
+            while ((line = reader.readLine()) != null){
+                String[] split = line.split(",");
+                if (split.length < 2 || !castRows.containsKey(castKey(split[0], split[1]))){
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            for (LinkedList<String> rows : castRows.values()){
+                for (String row : rows){
+                    writer.write(row);
+                    writer.newLine();
+                }
+            }
+        } finally {
+            reader.close();
+            writer.close();
+        }
+
+        force(newTests);
+        force(newCasts);
+        Files.move(newTests, tests, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(newCasts, casts, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the moves must be on disk before the log is emptied
+        forceDirectory(tests);
+        if (!tests.toAbsolutePath().getParent().equals(casts.toAbsolutePath().getParent())){
+            forceDirectory(casts);
+        }
+
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        synchronized (syncLock) {
+            synced = written;
+        }
+    }
+
+    /**
+     * Returns the size of the log file, in bytes
+     *
+     * @return the size of the log file
+     */
+    public synchronized long size() throws IOException
+    {
+        return channel.size();
+    }
+
+    /**
+     * Forces the changes appended so far to disk, and closes the log file.
+     */
+    public void close() throws IOException
+    {
+        sync();
+        synchronized (this) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Appends one change to the end of the log and applies it to the collection. A change that is
+     * not valid is refused before anything is written, so that it can never be replayed; and if
+     * applying the change fails all the same, the record is cut off again. The log is forced to
+     * disk once groupCommitSize changes are waiting, and compacted once it is large enough.
+     */
+    private void append(byte type, String... fields) throws IOException
+    {
+        validate(type, fields);
+        boolean mustSync;
+        synchronized (this) {
+            long end = channel.position();
+            ByteBuffer record = encode(type, fields);
+            while (record.hasRemaining()){
+                channel.write(record);
+            }
+            try {
+                apply(type, fields);
+            } catch (RuntimeException e) {
+                channel.truncate(end);
+                channel.position(end);
+                throw e;
+            }
+            written++;
+            mustSync = written - synced >= groupCommitSize;
+        }
+        if (mustSync){
+            sync();
+        }
+        synchronized (this) {
+            if (channel.size() >= compactionSize){
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Checks that a change can be applied to the collection, and written back to the tests or casts
+     * file by compact.
+     *
+     * @throws IllegalArgumentException if it cannot
+     */
+    private static void validate(byte type, String[] fields)
+    {
+        if (type == UPSERT_RESULTS && fields.length == 2){
+            MovieCollection.checkTestResults(fields[0], fields[1]);
+        } else if (type == ADD_CAST && fields.length == 1){
+            MovieCollection.checkCastLine(fields[0]);
+        } else if (type == REMOVE_CAST && fields.length == 2){
+            for (String field : fields){
+                if (field == null || field.isEmpty() || field.indexOf(',') >= 0 || field.indexOf('\n') >= 0){
+                    throw new IllegalArgumentException("Not a valid title or actor name: " + field);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown change " + type + " with " + fields.length + " fields");
+        }
+    }
+
+    /**
+     * Applies one change to the collection in memory
+     */
+    private void apply(byte type, String[] fields)
+    {
+        if (type == UPSERT_RESULTS){
+            collection.upsertTestResults(fields[0], fields[1]);
+        } else if (type == ADD_CAST){
+            collection.addCast(fields[0]);
+        } else if (type == REMOVE_CAST){
+            collection.removeCast(fields[0], fields[1]);
+        }
+    }
+
+    /**
+     * Applies the records already in the log file to the collection. A record that was not
+     * completely written at the end of the log is cut off; a damaged record followed by more of
+     * the log, or a change that is not valid, is reported with an IOException, and then nothing is
+     * applied to the collection.
+     */
+    private void replay() throws IOException
+    {
+        long valid = 0;
+        LinkedList<Change> changes = new LinkedList<Change>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        Change change;
+        while ((change = readRecord(in)) != null){
+            changes.add(change);
+            valid += change.size;
+        }
+        if (channel.size() > valid){
+            if (!isTornTail(valid)){
+                throw new IOException("Damaged change at byte " + valid + " of " + logFile
+                    + ", followed by more changes; the log was left as it is");
+            }
+            System.out.println("Ignoring " + (channel.size() - valid) + " bytes of an incomplete change at the end of "
+                + logFile);
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        long offset = 0;
+        for (Change c : changes){
+            try {
+                validate(c.type, c.fields);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Change at byte " + offset + " of " + logFile + " is not valid: "
+                    + e.getMessage() + "; the log was left as it is");
+            }
+            offset += c.size;
+        }
+        offset = 0;
+        for (Change c : changes){
+            try {
+                apply(c.type, c.fields);
+            } catch (RuntimeException e) {
+                throw new IOException("Change at byte " + offset + " of " + logFile + " could not be applied", e);
+            }
+            offset += c.size;
+            written++;
+        }
+        channel.position(valid);
+        synced = written;
+    }
+
+    /**
+     * Returns true if the bad record at the given offset can only be the last record, cut short
+     * while it was written: its header is incomplete, its length reaches the end of the file, or
+     * everything from the offset to the end of the file is zeros.
+     */
+    private boolean isTornTail(long offset) throws IOException
+    {
+        long size = channel.size();
+        if (size - offset < 8){
+            return true;
+        }
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (header.hasRemaining()){
+            if (channel.read(header, offset + header.position()) < 0){
+                return true;
+            }
+        }
+        int length = header.getInt(0);
+        if (length >= 2 && length <= MAX_RECORD_SIZE){
+            return offset + 8 + length >= size;
+        }
+        ByteBuffer rest = ByteBuffer.allocate(64 * 1024);
+        for (long position = offset; position < size; ){
+            rest.clear();
+            int n = channel.read(rest, position);
+            if (n < 0){
+                break;
+            }
+            for (int i = 0; i < n; i++){
+                if (rest.get(i) != 0){
+                    return false;
+                }
+            }
+            position += n;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bytes of one record: its length, the checksum of the change, and the change
+     */
+    private static ByteBuffer encode(byte type, String[] fields) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        out.writeByte(fields.length);
+        for (String field : fields){
+            byte[] utf = field.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf.length);
+            out.write(utf);
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Reads the next record of the log. Returns null at the end of the log, or at a record that is
+     * incomplete or corrupted.
+     */
+    private static Change readRecord(DataInputStream in) throws IOException
+    {
+        byte[] payload;
+        int checksum;
+        try {
+            int length = in.readInt();
+            checksum = in.readInt();
+            if (length < 2 || length > MAX_RECORD_SIZE){
+                return null;
+            }
+            payload = new byte[length];
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum){
+            return null;
+        }
+
+        try {
+            DataInputStream fields = new DataInputStream(new ByteArrayInputStream(payload));
+            Change change = new Change();
+            change.type = fields.readByte();
+            change.fields = new String[fields.readByte()];
+            for (int i = 0; i < change.fields.length; i++){
+                int length = fields.readInt();
+                if (length < 0 || length > fields.available()){
+                    return null;
+                }
+                byte[] utf = new byte[length];
+                fields.readFully(utf);
+                change.fields[i] = new String(utf, StandardCharsets.UTF_8);
+            }
+            change.size = 8 + payload.length;
+            return change;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One change read back from the log
+     */
+    private static class Change
+    {
+        byte type;
+        String[] fields;
+        // the size of the whole record in the log, in bytes
+        int size;
+    }
+
+    /**
+     * Returns the key identifying an actor in the cast of a movie, from fields that may be quoted
+     */
+    private static String castKey(String title, String actorName)
+    {
+        return title.replace("\"","") + "\n" + actorName.replace("\"","");
+    }
+
+    /**
+     * Forces the directory holding a file to disk, so that a file just moved into it stays there.
+     * Some systems (like Windows) cannot open a directory; there the move itself is all we can do.
+     */
+    private static void forceDirectory(Path file) throws IOException
+    {
+        Path directory = file.toAbsolutePath().getParent();
+        FileChannel fc;
+        try {
+            fc = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try {
+            fc.force(true);
+        } finally {
+            fc.close();
+        }
+    }
+
+    /**
+     * Forces a file that was just written to disk
+     */
+    private static void force(Path file) throws IOException
+    {
+        FileChannel fc = FileChannel.open(file, StandardOpenOption.WRITE);
+        try {
+            fc.force(true);
+        } finally {
+            fc.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        String testsFile = (args.length > 0) ? args[0] : "nextBechdel_allTests.txt";
+        String castsFile = (args.length > 1) ? args[1] : "nextBechdel_castGender.txt";
+
+        MovieCollection collection = new MovieCollection(testsFile, castsFile);
+        collection.loadAsync().join();
+        MovieChangeLog log = new MovieChangeLog(collection, "movies.changelog");
+
+        String title = collection.getMovieTitles().getFirst();
+        System.out.println("Before: " + collection.getMovies().getFirst() + " "
+            + collection.getMovies().getFirst().getAllTestResults());
+        log.upsertTestResults(title, "0,0,0,0,0,0,0,0,0,0,0,0,0");
+        log.addCast("\"" + title + "\",\"New Actor\",\"Someone\",\"Supporting\",\"9\",\"Female\"");
+        System.out.println("After: " + collection.getMovies().getFirst() + " "
+            + collection.getMovies().getFirst().getAllTestResults());
+        log.sync();
+        System.out.println("Log size: " + log.size() + " bytes");
+
+        log.removeCast(title, "New Actor");
+        System.out.println("After removing New Actor: " + collection.getMovies().getFirst());
+        log.close();
+
+        System.out.println("Re-reading the collection and replaying the log: ");
+        MovieCollection again = new MovieCollection(testsFile, castsFile);
+        again.loadAsync().join();
+        log = new MovieChangeLog(again, "movies.changelog");
+        System.out.println(again.getMovies().getFirst() + " " + again.getMovies().getFirst().getAllTestResults());
+        log.close();
+    }
+}
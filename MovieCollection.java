@@ -1,5 +1,7 @@
 import java.util.*;
 import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import javafoundations.PriorityQueue;
 
 /**
@@ -12,9 +14,17 @@ import javafoundations.PriorityQueue;
 public class MovieCollection
 {
     private LinkedList<Actor> allActors;
+    // the title of the movie of each actor in allActors, at the same index
+    private LinkedList<String> actorTitles;
     private LinkedList<Movie> allMovies;
     private String testsFileName;
     private String castsFileName;
+    private int partition;
+    private int partitions;
+    private volatile CompletableFuture<MovieCollection> moviesLoaded;
+    private volatile CompletableFuture<MovieCollection> castsLoaded;
+    private AtomicLong testsBytesRead;
+    private AtomicLong castsBytesRead;
 
     /**
      * Constructor for objects of class MovieCollection.
@@ -24,14 +34,193 @@ public class MovieCollection
      */
     public MovieCollection(String testsFileName, String castsFileName)
     {
+        this(testsFileName, castsFileName, 0, 1);
+    }
+
+    /**
+     * Constructor for objects of class MovieCollection that only keeps one partition of the movies:
+     * those whose title hashes to the given partition (see partitionOf), and their casts.
+     * 
+     * @param testsFileName The name of the file containing the data on the 12 tests
+     * @param castsFileName The name of the file containig the data on the casts of movies
+     * @param partition The partition to keep, from 0 to partitions - 1
+     * @param partitions The number of partitions the movies are split into
+     */
+    public MovieCollection(String testsFileName, String castsFileName, int partition, int partitions)
+    {
+        if (partitions < 1 || partition < 0 || partition >= partitions){
+            throw new IllegalArgumentException("Partition " + partition + " of " + partitions);
+        }
+        this.partition = partition;
+        this.partitions = partitions;
         allActors = new LinkedList<Actor>();
+        actorTitles = new LinkedList<String>();
         allMovies = new LinkedList<Movie>();
         this.testsFileName = testsFileName;
         this.castsFileName = castsFileName;
+        testsBytesRead = new AtomicLong();
+        castsBytesRead = new AtomicLong();
+    }
+
+    /**
+     * Starts reading the tests file and then the casts file in the background, on a thread of its
+     * own that stops once both files are read.
+     * 
+     * @return A future that completes once both the movies and their casts have been read
+     */
+    public CompletableFuture<MovieCollection> loadAsync()
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+                Thread loader = new Thread(task, "MovieCollection loader");
+                loader.setDaemon(true);
+                return loader;
+            });
+        CompletableFuture<MovieCollection> loaded = loadAsync(executor);
+        loaded.whenComplete((c, e) -> executor.shutdown());
+        return loaded;
+    }
+
+    /**
+     * Starts reading the tests file and then the casts file in the background, on the given executor.
+     * As soon as the movies are read, rankMovies and getMovies can be used while the casts keep being
+     * added to the movies. Calling this method again returns the load that is already started.
+     * If a file cannot be read, the future of that phase (and of the following one) completes
+     * exceptionally, with an UncheckedIOException as its cause.
+     * 
+     * @param executor The executor that runs the reading of the two files
+     * @return A future that completes once both the movies and their casts have been read
+     */
+    public synchronized CompletableFuture<MovieCollection> loadAsync(Executor executor)
+    {
+        if (castsLoaded == null){
+            moviesLoaded = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        readMovies();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return this;
+                }, executor);
+            castsLoaded = moviesLoaded.thenApplyAsync(c -> {
+                    try {
+                        readCasts();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return this;
+                }, executor);
+        }
+        return castsLoaded;
+    }
+
+    /**
+     * Returns the future that completes once all the movies and their test results have been read.
+     * 
+     * @return The movies-loaded future, or null if loadAsync has not been called
+     */
+    public CompletableFuture<MovieCollection> getMoviesLoaded()
+    {
+        return moviesLoaded;
+    }
+
+    /**
+     * Returns the future that completes once all the casts have been read.
+     * 
+     * @return The casts-loaded future, or null if loadAsync has not been called
+     */
+    public CompletableFuture<MovieCollection> getCastsLoaded()
+    {
+        return castsLoaded;
+    }
+
+    /**
+     * Returns how much of the tests file has been read so far.
+     * 
+     * @return A number between 0 and 1
+     */
+    public double getMoviesProgress()
+    {
+        return progress(moviesLoaded, testsBytesRead.get(), testsFileName);
+    }
+
+    /**
+     * Returns how much of the casts file has been read so far.
+     * 
+     * @return A number between 0 and 1
+     */
+    public double getCastsProgress()
+    {
+        return progress(castsLoaded, castsBytesRead.get(), castsFileName);
+    }
+
+    /**
+     * Returns the fraction of a file that has been read, or 1 if the phase reading it is done.
+     */
+    private static double progress(CompletableFuture<MovieCollection> phase, long bytesRead, String fileName)
+    {
+        if (phase != null && phase.isDone() && !phase.isCompletedExceptionally()){
+            return 1;
+        }
+        long length = new File(fileName).length();
+        if (length == 0){
+            return 0;
+        }
+        return Math.min(1.0, (double) bytesRead / length);
+    }
+
+    /**
+     * Returns the partition a movie belongs to, when the movies are split into the given number of
+     * partitions. The partition only depends on the title (without quotes), so a movie and its cast
+     * always end up in the same partition.
+     * 
+     * @param title The title of the movie
+     * @param partitions The number of partitions
+     * @return A number from 0 to partitions - 1
+     */
+    public static int partitionOf(String title, int partitions)
+    {
+        return Math.floorMod(title.replace("\"","").hashCode(), partitions);
+    }
+
+    /**
+     * Returns true if the movie with this title belongs to the partition of this collection.
+     */
+    private boolean inPartition(String title)
+    {
+        return partitions == 1 || partitionOf(title, partitions) == partition;
+    }
+
+    /**
+     * Waits for the movies to be read, if they are being read in the background.
+     */
+    private void awaitMovies()
+    {
+        CompletableFuture<MovieCollection> phase = moviesLoaded;
+        if (phase != null){
+            phase.join();
+        }
+    }
+
+    /**
+     * Waits for the movies and their casts to be read, if they are being read in the background.
+     * Readers of the casts (actor counts, genders) call this first, so that they neither see a
+     * partial cast nor iterate over a cast the loader is still adding to.
+     * 
+     * @throws CompletionException if reading one of the files failed
+     */
+    public void awaitCasts()
+    {
+        CompletableFuture<MovieCollection> phase = castsLoaded;
+        if (phase != null){
+            phase.join();
+        }
     }
 
     /**
      * Returns the Linked List containing all of the actors in the MovieCollection.
+     * While the casts are loaded in the background, the list keeps growing: wait on getCastsLoaded()
+     * first, or synchronize on the list while iterating over it. Change it through addCast and
+     * removeCast only, not directly.
      * 
      * @return A Linked List of all the actors in a MovieCollection.
      */
@@ -47,6 +236,7 @@ public class MovieCollection
      */
     public LinkedList<Movie> getMovies()
     {
+        awaitMovies();
         return allMovies;
     }
 
@@ -58,9 +248,12 @@ public class MovieCollection
     public LinkedList<String> getActorNames()
     {
         LinkedList<String> names = new LinkedList<String>();
-        for(int i=0; i<allActors.size(); i++)
+        synchronized (allActors)
         {
-            names.add(allActors.get(i).getName());
+            for(Actor actor : allActors)
+            {
+                names.add(actor.getName());
+            }
         }
         return names;
     }
@@ -73,9 +266,9 @@ public class MovieCollection
     public LinkedList<String> getMovieTitles()
     {
         LinkedList<String> names = new LinkedList<String>();
-        for(int i=0; i<allMovies.size(); i++)
+        for(Movie movie : getMovies())
         {
-            names.add(allMovies.get(i).getTitle());
+            names.add(movie.getTitle());
         }
         return names;
     }
@@ -83,18 +276,25 @@ public class MovieCollection
     /**
      * Reads from a file containing movie titles and test results and populates the appropriate data structures for the movie's test results
      * and for movie objects. 
+     * 
+     * @throws IOException if the tests file cannot be read
      */
-    private void readMovies()
+    private void readMovies() throws IOException
     {
+        Scanner reader = new Scanner(new CountingInputStream(new FileInputStream(testsFileName), testsBytesRead));
         try {
-            Scanner reader = new Scanner(new File(testsFileName));
             // skip first line, which is the header of the file
-            String skip = reader.nextLine();
+            if (reader.hasNextLine()) {
+                String skip = reader.nextLine();
+            }
 
             // now reading into file
             while (reader.hasNextLine()) {
                 String line = reader.nextLine();
                 String[] split = line.split(",");
+                if (!inPartition(split[0])){
+                    continue;
+                }
 
                 // creating new Movie object based on movie title
                 Movie movie = new Movie(split[0]);
@@ -106,45 +306,285 @@ public class MovieCollection
                 }
                 allMovies.add(movie);
             }
+            // Scanner keeps the errors of the file to itself
+            if (reader.ioException() != null) {
+                throw reader.ioException();
+            }
+        } finally {
             reader.close();
-        } catch (IOException e) {
-            System.out.println("Error checking lines from "+ testsFileName);
         }
     }
 
     /**
      * Reads from a filename containing information about a movie's cast to add to the allActors Linked List. The method also keeps track of the
      * number of actors for a movie, if it is already in the allMovies list. 
+     * 
+     * @throws IOException if the casts file cannot be read
      */
-    private void readCasts()
+    private void readCasts() throws IOException
     {
+        Scanner reader = new Scanner(new CountingInputStream(new FileInputStream(castsFileName), castsBytesRead));
         try {
-            Scanner reader = new Scanner(new File(castsFileName));
             // skip first line, which is the header of the file
-            String skip = reader.nextLine();
+            if (reader.hasNextLine()) {
+                String skip = reader.nextLine();
+            }
 
             while (reader.hasNextLine()) {
                 String line = reader.nextLine();
-                String[] split = line.split(",");
+                if (inPartition(line.split(",")[0])){
+                    addCastLine(line);
+                }
+            }
+            if (reader.ioException() != null) {
+                throw reader.ioException();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * An InputStream that adds the number of bytes read from it to a counter, so that the progress
+     * of reading a file can be followed from another thread.
+     */
+    private static class CountingInputStream extends FilterInputStream
+    {
+        private AtomicLong count;
 
-                // creating new Actor object
-                Actor actor = new Actor(split[1].replace("\"",""),split[5].replace("\"",""));
+        CountingInputStream(InputStream in, AtomicLong count)
+        {
+            super(in);
+            this.count = count;
+        }
+
+        public int read() throws IOException
+        {
+            int b = super.read();
+            if (b >= 0){
+                count.incrementAndGet();
+            }
+            return b;
+        }
 
-                allActors.add(actor);
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int n = super.read(b, off, len);
+            if (n > 0){
+                count.addAndGet(n);
+            }
+            return n;
+        }
 
-                // getting title of movie, to check if it is in the allMovies list
-                String title = split[0].replace("\"","");
-                for (int i = 0; i < allMovies.size(); i ++){
-                    // if the movie titles are equal (movie IS in allMovies), adds the actor to the Movie object
-                    if (allMovies.get(i).getTitle().equals(title)){ 
-                        allMovies.get(i).addOneActor(line); 
-                    }
+        public long skip(long n) throws IOException
+        {
+            long skipped = super.skip(n);
+            count.addAndGet(skipped);
+            return skipped;
+        }
+    }
+
+    /**
+     * Adds the actor of one line of the casts file to the allActors Linked List, and to the movie
+     * it played in, if that movie is in the allMovies list.
+     */
+    private void addCastLine(String line)
+    {
+        String[] split = line.split(",");
+
+        // creating new Actor object
+        Actor actor = new Actor(split[1].replace("\"",""),split[5].replace("\"",""));
+
+        // getting title of movie, to check if it is in the allMovies list
+        String title = split[0].replace("\"","");
+
+        synchronized (allActors) {
+            allActors.add(actor);
+            actorTitles.add(title);
+        }
+
+        for (Movie movie : allMovies){
+            // if the movie titles are equal (movie IS in allMovies), adds the actor to the Movie object
+            if (movie.getTitle().equals(title)){ 
+                movie.addOneActor(line); 
+            }
+        }
+    }
+
+    /**
+     * Adds one actor to the collection, as if the line had been read from the casts file, unless an
+     * actor with the same name is already in the cast of that movie: adding the same actor twice
+     * does nothing. Waits for the collection to be read first, if it is being read in the background.
+     * 
+     * @param line A line formatted as the lines of the casts file
+     * @return true if the actor was added, false if it was already in the cast
+     * @throws IllegalArgumentException if the line is not formatted as a line of the casts file
+     */
+    public boolean addCast(String line)
+    {
+        checkCastLine(line);
+        awaitCasts();
+        String[] split = line.split(",");
+        if (hasCast(split[0], split[1])){
+            return false;
+        }
+        addCastLine(line);
+        return true;
+    }
+
+    /**
+     * Checks that a title and its test results can be written as one line of the tests file and
+     * read back the same: the title is not empty and has no comma or line break, and the results
+     * are at least as many numbers as the feminist score uses.
+     * 
+     * @param title The title of the movie
+     * @param results The results of the tests, formatted as in the tests file (ie. "0,1,1,...")
+     * @throws IllegalArgumentException if they cannot
+     */
+    static void checkTestResults(String title, String results)
+    {
+        if (title == null || title.isEmpty() || title.indexOf(',') >= 0 || title.indexOf('\n') >= 0
+            || title.indexOf('\r') >= 0){
+            throw new IllegalArgumentException("Not a valid title: " + title);
+        }
+        if (results == null || results.indexOf('\n') >= 0 || results.indexOf('\r') >= 0){
+            throw new IllegalArgumentException("Not valid test results for " + title + ": " + results);
+        }
+        String[] split = results.split(",");
+        // Movie.feministScore reads the results at index 3, 4 and 6
+        if (split.length < 7){
+            throw new IllegalArgumentException("Only " + split.length + " test results for " + title);
+        }
+        for (String result : split){
+            try {
+                Double.parseDouble(result);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number in the test results of " + title + ": " + result);
+            }
+        }
+    }
+
+    /**
+     * Checks that a line is formatted as a line of the casts file: at least six comma separated
+     * fields (title, actor, character, type, billing, gender), and no line break.
+     * 
+     * @param line The line to check
+     * @throws IllegalArgumentException if it is not
+     */
+    static void checkCastLine(String line)
+    {
+        if (line == null || line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0 || line.split(",").length < 6){
+            throw new IllegalArgumentException("Not a line of the casts file: " + line);
+        }
+    }
+
+    /**
+     * Returns true if an actor with this name is in the cast of the movie with this title.
+     * 
+     * @param title The title of the movie, with or without quotes
+     * @param actorName The name of the actor, with or without quotes
+     * @return true if the actor is in the cast of the movie, false otherwise
+     */
+    public boolean hasCast(String title, String actorName)
+    {
+        String t = title.replace("\"","");
+        String name = actorName.replace("\"","");
+        synchronized (allActors) {
+            Iterator<Actor> actors = allActors.iterator();
+            Iterator<String> titles = actorTitles.iterator();
+            while (actors.hasNext()){
+                Actor actor = actors.next();
+                if (titles.next().equals(t) && actor.getName().equals(name)){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes every actor with the given name from the cast of a movie: from the Movie object, and
+     * the entries of that movie from the allActors Linked List. Entries of the same actor in other
+     * movies are kept. Waits for the collection to be read first, if it is being read in the
+     * background.
+     * 
+     * @param title The title of the movie, with or without quotes
+     * @param actorName The name of the actor, with or without quotes
+     * @return true if the actor was in the cast of the movie, false otherwise
+     */
+    public boolean removeCast(String title, String actorName)
+    {
+        awaitCasts();
+        String t = title.replace("\"","");
+        String name = actorName.replace("\"","");
+        boolean removed = false;
+        for (Movie movie : allMovies){
+            if (movie.getTitle().equals(t) && movie.removeActor(name)){
+                removed = true;
+            }
+        }
+        synchronized (allActors) {
+            Iterator<Actor> actors = allActors.iterator();
+            Iterator<String> titles = actorTitles.iterator();
+            while (actors.hasNext()){
+                Actor actor = actors.next();
+                String actorTitle = titles.next();
+                if (actorTitle.equals(t) && actor.getName().equals(name)){
+                    actors.remove();
+                    titles.remove();
+                    removed = true;
                 }
             }
-            reader.close();
-        } catch (IOException e) {
-            System.out.println("Error checking lines from "+ castsFileName);
         }
+        return removed;
+    }
+
+    /**
+     * Replaces the test results of a movie, or adds the movie to the collection if there is no movie
+     * with this title yet. Waits for the collection to be read first, if it is being read in the
+     * background.
+     * 
+     * @param title The title of the movie, which cannot contain a comma
+     * @param results The results of the tests, formatted as in the tests file (ie. "0,1,1,...")
+     * @return The movie with the new results
+     * @throws IllegalArgumentException if the title or the results could not be written back to
+     * the tests file as one line (see checkTestResults)
+     */
+    public Movie upsertTestResults(String title, String results)
+    {
+        checkTestResults(title, results);
+        awaitCasts();
+        for (Movie movie : allMovies){
+            if (movie.getTitle().equals(title)){
+                movie.clearTestResults();
+                movie.setTestResults(results);
+                return movie;
+            }
+        }
+        Movie movie = new Movie(title);
+        movie.setTestResults(results);
+        allMovies.add(movie);
+        return movie;
+    }
+
+    /**
+     * Returns the name of the file containing the data on the tests
+     * 
+     * @return The name of the tests file
+     */
+    public String getTestsFileName()
+    {
+        return testsFileName;
+    }
+
+    /**
+     * Returns the name of the file containing the data on the casts of movies
+     * 
+     * @return The name of the casts file
+     */
+    public String getCastsFileName()
+    {
+        return castsFileName;
     }
 
     /**
@@ -154,17 +594,68 @@ public class MovieCollection
      */
     public PriorityQueue<Movie> rankMovies()
     {
+        awaitMovies();
         PriorityQueue<Movie> queue = new PriorityQueue<Movie>();
 
-        for(int i=allMovies.size()-1; i>0; i--)
+        for(Movie movie : allMovies)
         {
-            allMovies.get(i).feministScore();
-            queue.enqueue(allMovies.get(i));
+            movie.feministScore();
+            queue.enqueue(movie);
         }
 
         return queue;
     }
 
+    /**
+     * Creates a Priority Queue with only the k most feminist movies, in the same order as rankMovies.
+     * Only k movies are kept at any time while the collection is scanned.
+     * 
+     * @param k The number of movies to keep
+     * @return A Priority Queue with the k most feminist movies enqueued first
+     */
+    public PriorityQueue<Movie> rankMovies(int k)
+    {
+        awaitMovies();
+        for(Movie movie : allMovies)
+        {
+            movie.feministScore();
+        }
+        return topMovies(allMovies, k);
+    }
+
+    /**
+     * Creates a Priority Queue with the k movies that rankMovies would dequeue first out of the given
+     * movies, whose feminist scores must already be computed. A bounded heap of at most k movies,
+     * ordered by Movie.compareTo, drops the lowest one each time it grows past k.
+     * 
+     * @param movies The movies to choose from
+     * @param k The number of movies to keep
+     * @return A Priority Queue with the k most feminist movies enqueued first
+     */
+    public static PriorityQueue<Movie> topMovies(Collection<Movie> movies, int k)
+    {
+        PriorityQueue<Movie> queue = new PriorityQueue<Movie>();
+        if (k <= 0)
+        {
+            return queue;
+        }
+        // java.util.PriorityQueue keeps the lowest movie (by compareTo) at its head
+        java.util.PriorityQueue<Movie> kept = new java.util.PriorityQueue<Movie>(Math.min(k, movies.size()) + 1);
+        for(Movie movie : movies)
+        {
+            kept.add(movie);
+            if (kept.size() > k)
+            {
+                kept.poll();
+            }
+        }
+        for(Movie movie : kept)
+        {
+            queue.enqueue(movie);
+        }
+        return queue;
+    }
+
     /**
      * Returns a Linked List of movies that have passed a specific test, with the test number being specified according to the header
      * of the tests files (ie. Bechdel is 1)
@@ -182,7 +673,7 @@ public class MovieCollection
             while (reader.hasNextLine()) {
                 String line2 = reader.nextLine();
                 String[] split = line2.split(",");
-                if (Integer.parseInt(split[n]) == 0){
+                if (inPartition(split[0]) && Integer.parseInt(split[n]) == 0){
                     Movie passes = new Movie(split[0]); 
                     passedTest.add(passes); 
                 }
@@ -220,8 +711,8 @@ public class MovieCollection
             while (reader.hasNextLine()) {
                 String line2 = reader.nextLine();
                 String[] split = line2.split(",");
-                if (Integer.parseInt(split[2]) == 0 || 
-                Integer.parseInt(split[3]) == 0){ 
+                if (inPartition(split[0]) && (Integer.parseInt(split[2]) == 0 || 
+                Integer.parseInt(split[3]) == 0)){ 
                     Movie passes = new Movie(split[0]); 
                     passedTest.add(passes); 
                 }
@@ -251,7 +742,7 @@ public class MovieCollection
             while (reader.hasNextLine()) {
                 String line2 = reader.nextLine();
                 String[] split = line2.split(",");
-                if (Integer.parseInt(split[12]) == 0 &&
+                if (inPartition(split[0]) && Integer.parseInt(split[12]) == 0 &&
                 Integer.parseInt(split[13]) == 1){ 
                     Movie passes = new Movie(split[0]); 
                     passedTest.add(passes); 
@@ -271,11 +762,12 @@ public class MovieCollection
      * @return A string representing MovieCollection
      */
     public String toString(){
-        String s = "This movie collection contains " + allMovies.size() + " movies: \n";
-        for (int i = 1; i < allMovies.size(); i++){
-            s += allMovies.get(i) + "\n"; 
+        awaitMovies();
+        StringBuilder s = new StringBuilder("This movie collection contains " + allMovies.size() + " movies: \n");
+        for (Movie movie : allMovies){
+            s.append(movie).append("\n"); 
         }
-        return s; 
+        return s.toString(); 
     }
 
     public static void main(String[] args)
@@ -286,12 +778,20 @@ public class MovieCollection
 
         MovieCollection m1 = new MovieCollection("nextBechdel_allTests.txt", 
                 "nextBechdel_castGender.txt"); 
-        m1.readMovies();  
+        try {
+            m1.readMovies();  
+        } catch (IOException e) {
+            System.out.println("Error checking lines from nextBechdel_allTests.txt");
+        }
         System.out.println(m1 + "\n"); 
 
         System.out.println("Testing readCasts and toString: \n"); 
 
-        m1.readCasts(); 
+        try {
+            m1.readCasts(); 
+        } catch (IOException e) {
+            System.out.println("Error checking lines from nextBechdel_castGender.txt");
+        }
         System.out.println(m1 + "\n"); 
 
         System.out.println("Testing getActors and getActorNames: ");
@@ -338,5 +838,30 @@ public class MovieCollection
             Movie m = queue.dequeue(); 
             System.out.println(m.getTitle() + " score: " + m.getFeministScore()); 
         }
+
+        System.out.println("\n"+"Testing MovieExporter (rankings, Bechdel results and casts as CSV and JSON Lines): "); 
+        try {
+            MovieExporter exporter = new MovieExporter(m1);
+            exporter.exportRankings("rankings.csv", MovieExporter.CSV);
+            System.out.println(exporter.getReport());
+            exporter.exportPassedTest("bechdel.jsonl", 1, MovieExporter.JSON_LINES);
+            System.out.println(exporter.getReport());
+            exporter.exportCasts("casts.csv", MovieExporter.CSV);
+            System.out.println(exporter.getReport());
+        } catch (IOException e) {
+            System.out.println("Error exporting movie collection: " + e.getMessage());
+        }
+
+        System.out.println("\n"+"Testing loadAsync (ranking before the casts are read): "); 
+        MovieCollection m2 = new MovieCollection("nextBechdel_allTests.txt", 
+                "nextBechdel_castGender.txt"); 
+        CompletableFuture<MovieCollection> loaded = m2.loadAsync(); 
+        m2.getMoviesLoaded().join(); 
+        System.out.println("Movies read: " + m2.getMovies().size() + ", casts progress: " 
+            + Math.round(m2.getCastsProgress() * 100) + "%"); 
+        System.out.println("Most feminist movie: " + m2.rankMovies().first().getTitle()); 
+        loaded.join(); 
+        System.out.println("Casts progress after loading: " + Math.round(m2.getCastsProgress() * 100) + "%"); 
+        System.out.println("Actors read: " + m2.getActors().size()); 
     }
 }
@@ -0,0 +1,295 @@
+import java.util.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.CompletionException;
+import javafoundations.PriorityQueue;
+
+/**
+ * Exports the contents of a MovieCollection (the movie rankings, the movies passing a given test,
+ * and a summary of each movie's cast) to a file, either as CSV or as JSON Lines.
+ * Rows are written one at a time through a fixed size buffer on a FileChannel, so the memory used
+ * does not grow with the size of the collection.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class MovieExporter
+{
+    /** Comma separated values, with a header line */
+    public static final int CSV = 0;
+    /** One JSON object per line */
+    public static final int JSON_LINES = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private MovieCollection collection;
+    private ByteBuffer buffer;
+    private long bytesWritten;
+    private long rowsWritten;
+    private long startNanos;
+    private long elapsedNanos;
+
+    /**
+     * Constructor for objects of class MovieExporter
+     *
+     * @param collection The (already read) MovieCollection to export
+     */
+    public MovieExporter(MovieCollection collection)
+    {
+        this.collection = collection;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Writes the movies of the collection, most feminist first, with their rank and feminist score.
+     *
+     * @param fileName The name of the file to write
+     * @param format Either CSV or JSON_LINES
+     */
+    public void exportRankings(String fileName, int format) throws IOException
+    {
+        PriorityQueue<Movie> queue = collection.rankMovies();
+        FileChannel channel = open(fileName);
+        try {
+            if (format == CSV){
+                write(channel, "rank,title,score\n");
+            }
+            int rank = 1;
+            while (!queue.isEmpty()){
+                Movie m = queue.dequeue();
+                if (format == CSV){
+                    write(channel, rank + "," + csv(m.getTitle()) + "," + m.getFeministScore() + "\n");
+                } else {
+                    write(channel, "{\"rank\":" + rank + ",\"title\":" + json(m.getTitle())
+                        + ",\"score\":" + m.getFeministScore() + "}\n");
+                }
+                rank++;
+            }
+        } finally {
+            close(channel);
+        }
+    }
+
+    /**
+     * Writes the movies of the collection that passed a specific test, with the test number being
+     * specified according to the header of the tests file (ie. Bechdel is 1). Like
+     * MovieCollection.findAllMoviesPassedTestNum, a result of "0" means that the movie passed.
+     *
+     * @param fileName The name of the file to write
+     * @param n The integer of the test, according to the header
+     * @param format Either CSV or JSON_LINES
+     */
+    public void exportPassedTest(String fileName, int n, int format) throws IOException
+    {
+        FileChannel channel = open(fileName);
+        try {
+            if (format == CSV){
+                write(channel, "test,title\n");
+            }
+            // only the test results are exported, so the casts need not be read yet
+            for (Movie m : collection.getMovies()){
+                Vector<String> results = m.getAllTestResults();
+                if (n > 0 && n <= results.size() && results.get(n-1).trim().equals("0")){
+                    if (format == CSV){
+                        write(channel, n + "," + csv(m.getTitle()) + "\n");
+                    } else {
+                        write(channel, "{\"test\":" + n + ",\"title\":" + json(m.getTitle()) + "}\n");
+                    }
+                }
+            }
+        } finally {
+            close(channel);
+        }
+    }
+
+    /**
+     * Writes a summary of the cast of each movie in the collection: the number of actors, and how
+     * many of them are female and male. If the collection is being read in the background, waits
+     * until its casts are read.
+     *
+     * @param fileName The name of the file to write
+     * @param format Either CSV or JSON_LINES
+     */
+    public void exportCasts(String fileName, int format) throws IOException
+    {
+        // the casts must be complete, and no longer changing, before they are counted
+        try {
+            collection.awaitCasts();
+        } catch (CompletionException e) {
+            throw new IOException("The collection could not be read", e.getCause());
+        }
+        FileChannel channel = open(fileName);
+        try {
+            if (format == CSV){
+                write(channel, "title,actors,female,male\n");
+            }
+            for (Movie m : collection.getMovies()){
+                int female = 0;
+                int male = 0;
+                // getAllActors returns a raw Hashtable, whose keys are Actors
+                for (Object actor : m.getAllActors().keySet()) {
+                    String gender = ((Actor) actor).getGender().replace("\"","").trim();
+                    if (gender.equalsIgnoreCase("Female")){
+                        female++;
+                    } else if (gender.equalsIgnoreCase("Male")){
+                        male++;
+                    }
+                }
+                int actors = m.getAllActors().size();
+                if (format == CSV){
+                    write(channel, csv(m.getTitle()) + "," + actors + "," + female + "," + male + "\n");
+                } else {
+                    write(channel, "{\"title\":" + json(m.getTitle()) + ",\"actors\":" + actors
+                        + ",\"female\":" + female + ",\"male\":" + male + "}\n");
+                }
+            }
+        } finally {
+            close(channel);
+        }
+    }
+
+    /**
+     * Returns the number of bytes written by the last export
+     *
+     * @return the number of bytes written by the last export
+     */
+    public long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the number of rows (including any header line) written by the last export
+     *
+     * @return the number of rows written by the last export
+     */
+    public long getRowsWritten()
+    {
+        return rowsWritten;
+    }
+
+    /**
+     * Returns the throughput of the last export, in megabytes per second
+     *
+     * @return the throughput of the last export in MB/s
+     */
+    public double getThroughput()
+    {
+        if (elapsedNanos == 0){
+            return 0;
+        }
+        return (bytesWritten / (1024.0 * 1024.0)) / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Returns a short report of the last export
+     *
+     * @return a string with the rows and bytes written by the last export, and its throughput
+     */
+    public String getReport()
+    {
+        return rowsWritten + " rows, " + bytesWritten + " bytes, "
+            + String.format("%.2f", getThroughput()) + " MB/s";
+    }
+
+    /**
+     * Opens (and truncates) the output file, and resets the counters of the export
+     */
+    private FileChannel open(String fileName) throws IOException
+    {
+        buffer.clear();
+        bytesWritten = 0;
+        rowsWritten = 0;
+        elapsedNanos = 0;
+        FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        startNanos = System.nanoTime();
+        return channel;
+    }
+
+    /**
+     * Adds one row to the buffer, writing the buffer to the channel whenever it is full
+     */
+    private void write(FileChannel channel, String row) throws IOException
+    {
+        byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > buffer.remaining()){
+            flush(channel);
+        }
+        if (bytes.length > buffer.capacity()){
+            // a row longer than the whole buffer goes straight to the channel
+            ByteBuffer big = ByteBuffer.wrap(bytes);
+            while (big.hasRemaining()){
+                channel.write(big);
+            }
+        } else {
+            buffer.put(bytes);
+        }
+        bytesWritten += bytes.length;
+        rowsWritten++;
+    }
+
+    /**
+     * Writes whatever is in the buffer to the channel
+     */
+    private void flush(FileChannel channel) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the buffer, closes the channel and stops timing the export
+     */
+    private void close(FileChannel channel) throws IOException
+    {
+        try {
+            flush(channel);
+        } finally {
+            channel.close();
+            elapsedNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Quotes a CSV field if it contains a comma, a quote or a line break
+     */
+    private static String csv(String field)
+    {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0){
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Returns a JSON string literal for the input string
+     */
+    static String json(String value)
+    {
+        StringBuilder s = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\'){
+                s.append('\\').append(c);
+            } else if (c == '\n'){
+                s.append("\\n");
+            } else if (c == '\r'){
+                s.append("\\r");
+            } else if (c == '\t'){
+                s.append("\\t");
+            } else if (c < 0x20){
+                s.append(String.format("\\u%04x", (int) c));
+            } else {
+                s.append(c);
+            }
+        }
+        return s.append('"').toString();
+    }
+}
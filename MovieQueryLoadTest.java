@@ -0,0 +1,108 @@
+import java.util.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many concurrent clients against a local MovieQueryServer, and reports the median and 99th
+ * percentile latency of their requests and the number of requests answered per second.
+ *
+ * Usage: java MovieQueryLoadTest [clients] [requestsPerClient] [testsFile] [castsFile]
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class MovieQueryLoadTest
+{
+    public static void main(String[] args) throws Exception
+    {
+        int clients = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+        int requestsPerClient = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+        String testsFile = (args.length > 2) ? args[2] : "nextBechdel_allTests.txt";
+        String castsFile = (args.length > 3) ? args[3] : "nextBechdel_castGender.txt";
+
+        MovieCollection collection = new MovieCollection(testsFile, castsFile);
+        collection.loadAsync().join();
+        MovieSnapshot snapshot = new MovieSnapshot(collection);
+        MovieQueryServer server = new MovieQueryServer(snapshot, 0);
+        server.start();
+
+        // one request of each kind, which the clients take turns sending
+        String base = "http://localhost:" + server.getPort();
+        LinkedList<String> titles = collection.getMovieTitles();
+        String title = titles.isEmpty() ? "" : titles.getFirst();
+        URI[] uris = {
+            URI.create(base + "/rank"),
+            URI.create(base + "/top?k=10"),
+            URI.create(base + "/test?n=1"),
+            URI.create(base + "/movie?title=" + java.net.URLEncoder.encode(title, "UTF-8"))
+        };
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = MovieQueryServer.newExecutor();
+        List<Future<?>> running = new ArrayList<Future<?>>();
+
+        System.out.println("Starting " + clients + " clients, " + requestsPerClient + " requests each, against "
+            + snapshot.size() + " movies");
+        for (int c = 0; c < clients; c++){
+            final int id = c;
+            running.add(executor.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    for (int r = 0; r < requestsPerClient; r++){
+                        HttpRequest request = HttpRequest.newBuilder(uris[(id + r) % uris.length]).build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() != 200){
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[id * requestsPerClient + r] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Future<?> f : running){
+            f.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        server.stop(0);
+
+        Arrays.sort(latencies);
+        System.out.println("Requests: " + latencies.length + ", failures: " + failures.get());
+        System.out.println(String.format("p50: %.3f ms, p99: %.3f ms", percentile(latencies, 50) / 1e6,
+                percentile(latencies, 99) / 1e6));
+        System.out.println(String.format("Throughput: %.0f requests/s", latencies.length / (elapsed / 1e9)));
+    }
+
+    /**
+     * Returns the p-th percentile of a sorted array, using the nearest rank
+     */
+    private static long percentile(long[] sorted, int p)
+    {
+        if (sorted.length == 0){
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
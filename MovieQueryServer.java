@@ -0,0 +1,223 @@
+import java.util.*;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import com.sun.net.httpserver.*;
+
+/**
+ * A small HTTP server, built on the JDK's own HttpServer, that answers queries on a MovieCollection
+ * from a MovieSnapshot. Every request runs on its own virtual thread when the JVM supports them
+ * (Java 21 and later), and on a cached pool of threads otherwise. The endpoints are:
+ *
+ *   /rank                 the whole ranking
+ *   /top?k=10             the first k movies of the ranking
+ *   /test?n=1             the movies that passed test n (ie. Bechdel is 1)
+ *   /movie?title=Alpha    the rank, score, number of actors and test results of one movie
+ *
+ * All the answers are JSON. Only GET and HEAD requests are accepted.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class MovieQueryServer
+{
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile MovieSnapshot snapshot;
+
+    /**
+     * Constructor for objects of class MovieQueryServer. The server does not accept requests until
+     * start is called.
+     *
+     * @param snapshot The snapshot to answer the queries from
+     * @param port The port to listen to on localhost, or 0 to pick any free port
+     */
+    public MovieQueryServer(MovieSnapshot snapshot, int port) throws IOException
+    {
+        this.snapshot = snapshot;
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 4096);
+        server.createContext("/rank", readOnly(exchange -> {
+                send(exchange, 200, this.snapshot.rankingJson());
+            }));
+        server.createContext("/top", readOnly(exchange -> {
+                Integer k = intParameter(exchange, "k");
+                if (k == null || k < 0){
+                    send(exchange, 400, error("k must be a non-negative integer"));
+                } else {
+                    send(exchange, 200, this.snapshot.topJson(k));
+                }
+            }));
+        server.createContext("/test", readOnly(exchange -> {
+                Integer n = intParameter(exchange, "n");
+                String passed = (n == null) ? null : this.snapshot.passedJson(n);
+                if (passed == null){
+                    send(exchange, 400, error("n must be between 1 and " + this.snapshot.getNumTests()));
+                } else {
+                    send(exchange, 200, passed);
+                }
+            }));
+        server.createContext("/movie", readOnly(exchange -> {
+                String title = parameter(exchange, "title");
+                String movie = (title == null) ? null : this.snapshot.movieJson(title);
+                if (title == null){
+                    send(exchange, 400, error("missing title"));
+                } else if (movie == null){
+                    send(exchange, 404, error("no movie titled " + title));
+                } else {
+                    send(exchange, 200, movie);
+                }
+            }));
+        executor = newExecutor();
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start()
+    {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, and waits at most the given number of seconds for the requests
+     * that are being answered.
+     *
+     * @param delay The maximum number of seconds to wait
+     */
+    public void stop(int delay)
+    {
+        server.stop(delay);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port this server listens to
+     *
+     * @return the port this server listens to
+     */
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Replaces the snapshot the queries are answered from. Requests already being answered finish
+     * with the old snapshot.
+     *
+     * @param snapshot The new snapshot
+     */
+    public void setSnapshot(MovieSnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns an executor that runs each task on a new virtual thread if this JVM has them, or on a
+     * cached pool of platform threads otherwise.
+     *
+     * @return an executor for many short, blocking tasks
+     */
+    public static ExecutorService newExecutor()
+    {
+        try {
+            // looked up by reflection, so that this class still compiles and runs before Java 21
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Wraps a handler so that it only answers GET and HEAD requests, and answers 405 to the others
+     */
+    private static HttpHandler readOnly(HttpHandler handler)
+    {
+        return exchange -> {
+            String method = exchange.getRequestMethod();
+            if (method.equals("GET") || method.equals("HEAD")){
+                handler.handle(exchange);
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                send(exchange, 405, error("method " + method + " is not allowed"));
+            }
+        };
+    }
+
+    /**
+     * Returns the value of a parameter of the query string of a request, or null if it is missing
+     */
+    private static String parameter(HttpExchange exchange, String name)
+    {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null){
+            return null;
+        }
+        for (String pair : query.split("&")){
+            int equals = pair.indexOf('=');
+            String key = (equals < 0) ? pair : pair.substring(0, equals);
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)){
+                return (equals < 0) ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of an integer parameter of a request, or null if it is missing or not a number
+     */
+    private static Integer intParameter(HttpExchange exchange, String name)
+    {
+        String value = parameter(exchange, name);
+        try {
+            return (value == null) ? null : Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a JSON object holding an error message
+     */
+    private static String error(String message)
+    {
+        return "{\"error\":" + MovieExporter.json(message) + "}";
+    }
+
+    /**
+     * Sends a JSON answer to a request (only its headers for a HEAD request), and closes the exchange
+     */
+    private static void send(HttpExchange exchange, int status, String json) throws IOException
+    {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (exchange.getRequestMethod().equals("HEAD")){
+            exchange.getResponseHeaders().set("Content-Length", Integer.toString(body.length));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String testsFile = (args.length > 0) ? args[0] : "nextBechdel_allTests.txt";
+        String castsFile = (args.length > 1) ? args[1] : "nextBechdel_castGender.txt";
+        int port = (args.length > 2) ? Integer.parseInt(args[2]) : 8080;
+
+        MovieCollection collection = new MovieCollection(testsFile, castsFile);
+        collection.loadAsync().join();
+        MovieQueryServer server = new MovieQueryServer(new MovieSnapshot(collection), port);
+        server.start();
+        System.out.println("Serving " + collection.getMovies().size() + " movies on http://localhost:"
+            + server.getPort() + " (/rank, /top?k=, /test?n=, /movie?title=)");
+    }
+}
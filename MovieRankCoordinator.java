@@ -0,0 +1,238 @@
+import java.util.*;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.*;
+import javafoundations.PriorityQueue;
+
+/**
+ * Ranks movies that are split by title across several MovieRankWorker processes. Each worker sends
+ * the k most feminist movies of its partition, and the coordinator keeps the k best of them in a
+ * bounded heap ordered by Movie.compareTo (see MovieCollection.topMovies), so the result is in
+ * exactly the same order as rankMovies on one MovieCollection holding all the movies.
+ *
+ * Usage: java MovieRankCoordinator [partitions] [k] [testsFile] [castsFile]
+ * starts the workers on localhost, and checks their merged ranking against a single collection.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class MovieRankCoordinator
+{
+    // how long to wait for a worker to accept a connection, and then for each read of its answer
+    public static final int TIMEOUT_MILLIS = 10000;
+
+    private int[] ports;
+
+    /**
+     * Constructor for objects of class MovieRankCoordinator
+     *
+     * @param ports The ports of the workers on localhost, one for each partition
+     */
+    public MovieRankCoordinator(int[] ports)
+    {
+        this.ports = ports.clone();
+    }
+
+    /**
+     * Asks every worker for the k most feminist movies of its partition, and merges their answers.
+     *
+     * @param k The number of movies to return
+     * @return A Priority Queue with the k most feminist movies of all the partitions enqueued first
+     */
+    public PriorityQueue<Movie> rankMovies(int k) throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(ports.length);
+        try {
+            List<Future<LinkedList<Movie>>> answers = new ArrayList<Future<LinkedList<Movie>>>();
+            for (int p = 0; p < ports.length; p++){
+                final int partition = p;
+                answers.add(executor.submit(() -> requestTop(partition, k)));
+            }
+
+            // each answer is merged as soon as it is read into a heap of at most k movies, whose
+            // head is the lowest of them by Movie.compareTo
+            java.util.PriorityQueue<Movie> kept = new java.util.PriorityQueue<Movie>();
+            for (Future<LinkedList<Movie>> answer : answers){
+                for (Movie m : answer.get()){
+                    kept.add(m);
+                    if (kept.size() > k){
+                        kept.poll();
+                    }
+                }
+            }
+            return MovieCollection.topMovies(kept, k);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the workers");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Asks every worker to stop.
+     */
+    public void stopWorkers() throws IOException
+    {
+        for (int p = 0; p < ports.length; p++){
+            Socket socket = connect(p);
+            try {
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeUTF(MovieRankWorker.STOP);
+                out.flush();
+            } catch (IOException e) {
+                throw failure(p, e);
+            } finally {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Asks the worker of one partition for the k most feminist movies of its partition. The movies
+     * are rebuilt from their test results, so their feminist scores are computed exactly as on the
+     * worker.
+     */
+    private LinkedList<Movie> requestTop(int partition, int k) throws IOException
+    {
+        LinkedList<Movie> movies = new LinkedList<Movie>();
+        Socket socket = connect(partition);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeUTF(MovieRankWorker.TOP);
+            out.writeInt(k);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++){
+                Movie m = new Movie(in.readUTF());
+                m.setTestResults(in.readUTF());
+                m.feministScore();
+                movies.add(m);
+            }
+        } catch (IOException e) {
+            throw failure(partition, e);
+        } finally {
+            socket.close();
+        }
+        return movies;
+    }
+
+    /**
+     * Connects to the worker of one partition, waiting at most TIMEOUT_MILLIS for the connection and
+     * then for each read from it.
+     */
+    private Socket connect(int partition) throws IOException
+    {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), ports[partition]), TIMEOUT_MILLIS);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+        } catch (IOException e) {
+            socket.close();
+            throw failure(partition, e);
+        }
+        return socket;
+    }
+
+    /**
+     * Returns an IOException saying which worker failed, caused by the given one
+     */
+    private IOException failure(int partition, IOException cause)
+    {
+        return new IOException("Worker of partition " + partition + " on port " + ports[partition]
+            + " failed: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Starts a worker process for one partition, and waits until it is ready. The rest of what the
+     * worker prints keeps being copied to the standard output, so that the worker never blocks on
+     * a full pipe.
+     *
+     * @return the worker process; its port is put in ports[partition]
+     */
+    private static Process startWorker(String testsFile, String castsFile, int partition, int partitions,
+        int[] ports) throws IOException
+    {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "MovieRankWorker", "0", testsFile, castsFile, Integer.toString(partition), Integer.toString(partitions));
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line;
+        while ((line = reader.readLine()) != null){
+            if (line.startsWith(MovieRankWorker.READY + " ")){
+                ports[partition] = Integer.parseInt(line.substring(MovieRankWorker.READY.length() + 1).trim());
+                Thread drain = new Thread(() -> {
+                        try {
+                            String more;
+                            while ((more = reader.readLine()) != null){
+                                System.out.println("worker " + partition + ": " + more);
+                            }
+                        } catch (IOException e) {
+                            // the worker has stopped
+                        }
+                    }, "worker " + partition + " output");
+                drain.setDaemon(true);
+                drain.start();
+                return process;
+            }
+            System.out.println("worker " + partition + ": " + line);
+        }
+        throw new IOException("Worker " + partition + " stopped before it was ready");
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int partitions = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        int k = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        String testsFile = (args.length > 2) ? args[2] : "nextBechdel_allTests.txt";
+        String castsFile = (args.length > 3) ? args[3] : "nextBechdel_castGender.txt";
+
+        System.out.println("Starting " + partitions + " workers on localhost");
+        int[] ports = new int[partitions];
+        Process[] workers = new Process[partitions];
+        try {
+            for (int p = 0; p < partitions; p++){
+                workers[p] = startWorker(testsFile, castsFile, p, partitions, ports);
+            }
+            MovieRankCoordinator coordinator = new MovieRankCoordinator(ports);
+            PriorityQueue<Movie> distributed = coordinator.rankMovies(k);
+
+            MovieCollection single = new MovieCollection(testsFile, castsFile);
+            single.loadAsync().join();
+            // the full ranking, so that the bounded heaps are checked too
+            PriorityQueue<Movie> expected = single.rankMovies();
+
+            boolean same = distributed.size() == Math.min(k, expected.size());
+            System.out.println("Top " + k + " movies of " + partitions + " partitions: ");
+            while (!distributed.isEmpty()){
+                Movie m = distributed.dequeue();
+                Movie e = expected.dequeue();
+                boolean match = e != null && m.getTitle().equals(e.getTitle())
+                    && m.getFeministScore() == e.getFeministScore();
+                same = same && match;
+                System.out.println(m.getTitle() + " score: " + m.getFeministScore() + (match ? "" : "  (expected "
+                        + (e == null ? "nothing" : e.getTitle() + " score: " + e.getFeministScore()) + ")"));
+            }
+            System.out.println(same ? "Same ranking as a single MovieCollection" : "DIFFERENT ranking from a single MovieCollection");
+            coordinator.stopWorkers();
+        } finally {
+            for (Process worker : workers){
+                if (worker != null && !worker.waitFor(5, TimeUnit.SECONDS)){
+                    worker.destroy();
+                }
+            }
+        }
+    }
+}
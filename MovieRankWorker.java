@@ -0,0 +1,113 @@
+import java.util.*;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import javafoundations.PriorityQueue;
+
+/**
+ * A worker process of a partitioned ranking. It reads one partition of the movies (see
+ * MovieCollection.partitionOf) and answers requests from a MovieRankCoordinator on a local socket.
+ *
+ * A request is the string "TOP" and a number k, and the answer is the number of movies, followed by
+ * the title and test results of each of the k most feminist movies of the partition, in ranking order.
+ * The request "STOP" stops the worker.
+ *
+ * Usage: java MovieRankWorker port testsFile castsFile partition partitions
+ * With port 0 any free port is used. Once the partition is read, the worker prints "READY" and its
+ * port on the standard output.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class MovieRankWorker
+{
+    public static final String TOP = "TOP";
+    public static final String STOP = "STOP";
+    public static final String READY = "READY";
+
+    private MovieCollection collection;
+    private ServerSocket server;
+
+    /**
+     * Constructor for objects of class MovieRankWorker. Reads the partition, and starts listening on
+     * localhost.
+     *
+     * @param port The port to listen to, or 0 to pick any free port
+     * @param collection The collection holding the partition of this worker
+     */
+    public MovieRankWorker(int port, MovieCollection collection) throws IOException
+    {
+        this.collection = collection;
+        collection.loadAsync().join();
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Returns the port this worker listens to
+     *
+     * @return the port this worker listens to
+     */
+    public int getPort()
+    {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Answers requests, one connection at a time, until a STOP request.
+     */
+    public void serve() throws IOException
+    {
+        try {
+            boolean running = true;
+            while (running){
+                Socket socket = server.accept();
+                try {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    String request = in.readUTF();
+                    if (request.equals(TOP)){
+                        writeTop(out, in.readInt());
+                    } else if (request.equals(STOP)){
+                        running = false;
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    System.out.println("Error answering a request: " + e.getMessage());
+                } finally {
+                    socket.close();
+                }
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Writes the k most feminist movies of this partition
+     */
+    private void writeTop(DataOutputStream out, int k) throws IOException
+    {
+        PriorityQueue<Movie> queue = collection.rankMovies(k);
+        out.writeInt(queue.size());
+        while (!queue.isEmpty()){
+            Movie m = queue.dequeue();
+            out.writeUTF(m.getTitle());
+            out.writeUTF(String.join(",", m.getAllTestResults()));
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 5){
+            System.out.println("Usage: java MovieRankWorker port testsFile castsFile partition partitions");
+            return;
+        }
+        MovieCollection collection = new MovieCollection(args[1], args[2],
+                Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+        MovieRankWorker worker = new MovieRankWorker(Integer.parseInt(args[0]), collection);
+        System.out.println(READY + " " + worker.getPort());
+        System.out.flush();
+        worker.serve();
+    }
+}
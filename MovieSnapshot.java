@@ -0,0 +1,159 @@
+import java.util.*;
+import javafoundations.PriorityQueue;
+
+/**
+ * An immutable copy of the rankings, test results and cast sizes of a MovieCollection, taken at one
+ * point in time. The whole ranking, the movies passing each test and each movie's answer are built
+ * once here; only the top-k answers are built on each call, from the ranking arrays. A snapshot can
+ * therefore be shared by any number of threads without locking, while the collection it was taken
+ * from keeps changing.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public final class MovieSnapshot
+{
+    private final String[] rankedTitles;
+    private final double[] rankedScores;
+    private final Map<String, String> movieJson;
+    private final Map<Integer, String> passedJson;
+    private final String rankingJson;
+    private final int numTests;
+
+    /**
+     * Constructor for objects of class MovieSnapshot. If the collection is being read in the
+     * background (see MovieCollection.loadAsync), waits until its casts are read too, so that the
+     * snapshot holds complete casts.
+     *
+     * @param collection The MovieCollection to take the snapshot of
+     */
+    public MovieSnapshot(MovieCollection collection)
+    {
+        if (collection.getCastsLoaded() != null){
+            collection.getCastsLoaded().join();
+        }
+        PriorityQueue<Movie> queue = collection.rankMovies();
+        int size = queue.size();
+        rankedTitles = new String[size];
+        rankedScores = new double[size];
+        HashMap<String, String> movies = new HashMap<String, String>();
+        HashMap<Integer, StringBuilder> passed = new HashMap<Integer, StringBuilder>();
+        int tests = 0;
+
+        for (int i = 0; i < size; i++){
+            Movie m = queue.dequeue();
+            rankedTitles[i] = m.getTitle();
+            rankedScores[i] = m.getFeministScore();
+
+            Vector<String> results = m.getAllTestResults();
+            tests = Math.max(tests, results.size());
+            StringBuilder s = new StringBuilder();
+            s.append("{\"rank\":").append(i + 1)
+                .append(",\"title\":").append(MovieExporter.json(m.getTitle()))
+                .append(",\"score\":").append(m.getFeministScore())
+                .append(",\"actors\":").append(m.getAllActors().size())
+                .append(",\"tests\":[");
+            for (int t = 0; t < results.size(); t++){
+                s.append(t == 0 ? "" : ",").append(MovieExporter.json(results.get(t).trim()));
+            }
+            movies.put(m.getTitle(), s.append("]}").toString());
+        }
+
+        // the movies passing each test are listed in the order of the tests file, like
+        // findAllMoviesPassedTestNum, where a result of "0" means that the movie passed
+        for (Movie m : collection.getMovies()){
+            Vector<String> results = m.getAllTestResults();
+            for (int t = 0; t < results.size(); t++){
+                if (results.get(t).trim().equals("0")){
+                    StringBuilder list = passed.get(t + 1);
+                    if (list == null){
+                        list = new StringBuilder();
+                        passed.put(t + 1, list);
+                    }
+                    list.append(list.length() == 0 ? "" : ",").append(MovieExporter.json(m.getTitle()));
+                }
+            }
+        }
+
+        HashMap<Integer, String> passedLists = new HashMap<Integer, String>();
+        for (int t = 1; t <= tests; t++){
+            StringBuilder list = passed.get(t);
+            passedLists.put(t, "{\"test\":" + t + ",\"titles\":[" + (list == null ? "" : list) + "]}");
+        }
+        numTests = tests;
+        movieJson = Collections.unmodifiableMap(movies);
+        passedJson = Collections.unmodifiableMap(passedLists);
+        rankingJson = topJson(size);
+    }
+
+    /**
+     * Returns the number of movies in this snapshot
+     *
+     * @return the number of movies in this snapshot
+     */
+    public int size()
+    {
+        return rankedTitles.length;
+    }
+
+    /**
+     * Returns the number of tests each movie was run against
+     *
+     * @return the number of tests in this snapshot
+     */
+    public int getNumTests()
+    {
+        return numTests;
+    }
+
+    /**
+     * Returns the whole ranking as a JSON array of {rank, title, score} objects.
+     *
+     * @return the ranking of all the movies, in the order of MovieCollection.rankMovies
+     */
+    public String rankingJson()
+    {
+        return rankingJson;
+    }
+
+    /**
+     * Returns the first k movies of the ranking as a JSON array of {rank, title, score} objects.
+     *
+     * @param k The number of movies to return; all of them if k is larger than the snapshot
+     * @return the first k movies of the ranking
+     */
+    public String topJson(int k)
+    {
+        int n = Math.max(0, Math.min(k, rankedTitles.length));
+        StringBuilder s = new StringBuilder("[");
+        for (int i = 0; i < n; i++){
+            s.append(i == 0 ? "" : ",")
+                .append("{\"rank\":").append(i + 1)
+                .append(",\"title\":").append(MovieExporter.json(rankedTitles[i]))
+                .append(",\"score\":").append(rankedScores[i]).append("}");
+        }
+        return s.append("]").toString();
+    }
+
+    /**
+     * Returns the titles of the movies that passed test n, as a JSON object.
+     *
+     * @param n The integer of the test, according to the header of the tests file
+     * @return the movies that passed the test, or null if there is no such test
+     */
+    public String passedJson(int n)
+    {
+        return passedJson.get(n);
+    }
+
+    /**
+     * Returns the rank, score, number of actors and test results of a movie, as a JSON object.
+     *
+     * @param title The title of the movie
+     * @return the movie as a JSON object, or null if no movie has this title
+     */
+    public String movieJson(String title)
+    {
+        return movieJson.get(title);
+    }
+}